@@ -0,0 +1,191 @@
+package com.example.randomdeathpawn;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 共有ディレクトリを使った LifeSyncBus
+ * - 1メッセージ = 1ファイル (<送信時刻>-<ノードID>-<0埋めの連番>.msg) として書き出す
+ * - 各サーバーは一定間隔でディレクトリを確認し、未読のファイルだけを読み込む
+ * - 保持期間を過ぎたファイルはどのサーバーからでも削除する
+ * 同じマシン上の複数サーバー、または共有ストレージをマウントしたサーバー間で使える。
+ */
+final class FileLifeSyncBus implements LifeSyncBus {
+
+    private static final String MESSAGE_SUFFIX = ".msg";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final JavaPlugin plugin;
+    private final Path directory;
+    private final String nodeId;
+    private final long pollIntervalMillis;
+    private final long retentionMillis;
+
+    private final AtomicLong sequence = new AtomicLong();
+    // 既に読んだファイル名 (ポーリングスレッドからのみ触る)
+    private final Set<String> seen = new HashSet<>();
+
+    private volatile Consumer<LifeSyncMessage> handler;
+    // 共有・ネットワークファイルシステムではアトミックなリネームが使えないことがある
+    private volatile boolean atomicMoveSupported = true;
+    private ScheduledTask pollTask;
+
+    FileLifeSyncBus(JavaPlugin plugin, Path directory, String nodeId, long pollIntervalMillis, long retentionMillis) {
+        this.plugin = plugin;
+        this.directory = directory;
+        this.nodeId = nodeId;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    @Override
+    public void start(Consumer<LifeSyncMessage> handler) throws IOException {
+        Files.createDirectories(directory);
+
+        // 起動前のメッセージは読まない (起動時の状態は SNAPSHOT_REQUEST で取得する)
+        synchronized (seen) {
+            seen.addAll(listMessageFiles());
+        }
+
+        this.handler = handler;
+        pollTask = plugin.getServer().getAsyncScheduler().runAtFixedRate(plugin, (task) -> poll(),
+                pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(LifeSyncMessage message) {
+        // 同じミリ秒内のメッセージも名前順 = 送信順になるよう連番を0埋めする
+        String name = System.currentTimeMillis() + "-" + nodeId + "-" + String.format("%019d", sequence.incrementAndGet());
+        String body = message.encode();
+
+        // ファイル書き込みはリージョンスレッドを止めないよう非同期で行う
+        plugin.getServer().getAsyncScheduler().runNow(plugin, (task) -> {
+            Path temp = directory.resolve(name + TEMP_SUFFIX);
+            try {
+                Files.writeString(temp, body, StandardCharsets.UTF_8);
+                // 書きかけのファイルを読まれないよう、書き終えてからリネームする
+                moveIntoPlace(temp, directory.resolve(name + MESSAGE_SUFFIX));
+            } catch (IOException e) {
+                plugin.getLogger().warning("[RandomDeathpawn] 同期メッセージの書き込みに失敗しました: " + e.getMessage());
+            }
+        });
+    }
+
+    private void moveIntoPlace(Path temp, Path target) throws IOException {
+        if (atomicMoveSupported) {
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            } catch (AtomicMoveNotSupportedException e) {
+                atomicMoveSupported = false;
+                plugin.getLogger().warning("[RandomDeathpawn] 同期ディレクトリでアトミックなリネームが使えないため、通常のリネームで配信します");
+            }
+        }
+        // .tmp は読み込み対象外なので、通常のリネームでも書きかけのメッセージは読まれない
+        Files.move(temp, target);
+    }
+
+    @Override
+    public void close() {
+        handler = null;
+        if (pollTask != null) {
+            pollTask.cancel();
+            pollTask = null;
+        }
+        // 実行中のポーリングが終わるのを待ち、close 後に変更が反映されないようにする
+        synchronized (seen) {
+            seen.clear();
+        }
+    }
+
+    private void poll() {
+        Consumer<LifeSyncMessage> currentHandler = handler;
+        if (currentHandler == null) {
+            return;
+        }
+
+        List<String> names;
+        try {
+            names = listMessageFiles();
+        } catch (IOException e) {
+            plugin.getLogger().warning("[RandomDeathpawn] 同期ディレクトリを読み込めませんでした: " + e.getMessage());
+            return;
+        }
+        // ファイル名の先頭が送信時刻なので、名前順に読めばおおよそ送信順になる
+        Collections.sort(names);
+
+        long now = System.currentTimeMillis();
+        synchronized (seen) {
+            // 削除済みのファイルは覚えておく必要がない
+            seen.retainAll(new HashSet<>(names));
+
+            for (String name : names) {
+                if (isExpired(name, now)) {
+                    deleteQuietly(directory.resolve(name));
+                    continue;
+                }
+                if (!seen.add(name) || name.contains("-" + nodeId + "-")) {
+                    continue;
+                }
+
+                try {
+                    String body = Files.readString(directory.resolve(name), StandardCharsets.UTF_8);
+                    currentHandler.accept(LifeSyncMessage.decode(body));
+                } catch (NoSuchFileException e) {
+                    // 他のサーバーが先に削除した
+                } catch (IOException | IllegalArgumentException e) {
+                    plugin.getLogger().warning("[RandomDeathpawn] 同期メッセージ " + name + " を読み込めませんでした: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private List<String> listMessageFiles() throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + MESSAGE_SUFFIX)) {
+            for (Path path : stream) {
+                names.add(path.getFileName().toString());
+            }
+        }
+        return names;
+    }
+
+    private boolean isExpired(String name, long now) {
+        int dash = name.indexOf('-');
+        if (dash <= 0) {
+            return false;
+        }
+        try {
+            long sentAt = Long.parseLong(name.substring(0, dash));
+            return now - sentAt > retentionMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // 他のサーバーが削除中など。次回のポーリングで再試行する
+        }
+    }
+}
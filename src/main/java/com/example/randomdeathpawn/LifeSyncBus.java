@@ -0,0 +1,25 @@
+package com.example.randomdeathpawn;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * サーバー間でライフ変更を配信するメッセージバス
+ * 実装を差し替えることで配信経路 (共有ディレクトリ、メッセージブローカーなど) を変更できる。
+ * 自分が publish したメッセージが自分の handler に届くかどうかは実装次第なので、
+ * 受信側で送信元 (origin) を見て無視すること。
+ */
+interface LifeSyncBus {
+
+    /**
+     * 受信を開始する。handler は任意のスレッドから呼ばれる
+     */
+    void start(Consumer<LifeSyncMessage> handler) throws IOException;
+
+    /**
+     * 他サーバーへメッセージを配信する。失敗してもプラグインの処理は止めない
+     */
+    void publish(LifeSyncMessage message);
+
+    void close();
+}
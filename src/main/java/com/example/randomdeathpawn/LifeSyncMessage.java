@@ -0,0 +1,186 @@
+package com.example.randomdeathpawn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * サーバー間で送受信するライフ変更メッセージ
+ * - PLAYER: 1人分のライフ・復活予定時刻 (バージョン付き)
+ * - RESET: ライフリセットを実行したことの通知 (次回リセット時刻とリセット時点のバージョン付き)
+ * - SNAPSHOT_REQUEST: 起動直後のサーバーが他サーバーに現在の状態を要求する
+ * - SNAPSHOT: SNAPSHOT_REQUEST への返信。要求元だけに宛て、次回リセット時刻・リセット時点のバージョンと
+ *   前回リセット以降に変更のあったプレイヤー全員分を1通にまとめる
+ */
+final class LifeSyncMessage {
+
+    enum Type {
+        PLAYER,
+        RESET,
+        SNAPSHOT_REQUEST,
+        SNAPSHOT
+    }
+
+    private static final String SEPARATOR = "\t";
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String NONE = "-";
+    private static final int FIELD_COUNT = 8;
+
+    private final Type type;
+    private final String origin;
+    private final String target;
+    private final UUID playerId;
+    private final int lives;
+    private final long revivalAt;
+    private final long version;
+    private final long nextResetTime;
+    private final List<LifeSyncMessage> entries;
+
+    private LifeSyncMessage(Type type, String origin, String target, UUID playerId, int lives, long revivalAt,
+            long version, long nextResetTime, List<LifeSyncMessage> entries) {
+        this.type = type;
+        this.origin = origin;
+        this.target = target;
+        this.playerId = playerId;
+        this.lives = lives;
+        this.revivalAt = revivalAt;
+        this.version = version;
+        this.nextResetTime = nextResetTime;
+        this.entries = entries;
+    }
+
+    static LifeSyncMessage player(String origin, UUID playerId, int lives, long revivalAt, long version) {
+        return new LifeSyncMessage(Type.PLAYER, origin, null, playerId, lives, revivalAt, version, 0L,
+                Collections.emptyList());
+    }
+
+    static LifeSyncMessage reset(String origin, long nextResetTime, long resetFloor) {
+        return new LifeSyncMessage(Type.RESET, origin, null, null, 0, 0L, resetFloor, nextResetTime,
+                Collections.emptyList());
+    }
+
+    static LifeSyncMessage snapshotRequest(String origin) {
+        return new LifeSyncMessage(Type.SNAPSHOT_REQUEST, origin, null, null, 0, 0L, 0L, 0L,
+                Collections.emptyList());
+    }
+
+    static LifeSyncMessage snapshot(String origin, String target, long nextResetTime, long resetFloor,
+            List<LifeSyncMessage> players) {
+        return new LifeSyncMessage(Type.SNAPSHOT, origin, target, null, 0, 0L, resetFloor, nextResetTime,
+                Collections.unmodifiableList(new ArrayList<>(players)));
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    String getOrigin() {
+        return origin;
+    }
+
+    /**
+     * 宛先のノードID。null なら全サーバー宛て
+     */
+    String getTarget() {
+        return target;
+    }
+
+    UUID getPlayerId() {
+        return playerId;
+    }
+
+    int getLives() {
+        return lives;
+    }
+
+    /**
+     * 観戦モードからの復活予定時刻 (ミリ秒)。0 なら復活待ちではない
+     */
+    long getRevivalAt() {
+        return revivalAt;
+    }
+
+    /**
+     * PLAYER: 変更のバージョン / RESET, SNAPSHOT: リセット時点のバージョン (これ以前の変更はリセットで消える)
+     */
+    long getVersion() {
+        return version;
+    }
+
+    long getNextResetTime() {
+        return nextResetTime;
+    }
+
+    /**
+     * SNAPSHOT に含まれるプレイヤーごとの PLAYER メッセージ
+     */
+    List<LifeSyncMessage> getEntries() {
+        return entries;
+    }
+
+    /**
+     * テキストに変換する (1行目がタブ区切りの本体、SNAPSHOT は2行目以降に1人1行)
+     */
+    String encode() {
+        StringBuilder sb = new StringBuilder(encodeLine());
+        for (LifeSyncMessage entry : entries) {
+            sb.append(LINE_SEPARATOR).append(entry.encodeLine());
+        }
+        return sb.toString();
+    }
+
+    private String encodeLine() {
+        return String.join(SEPARATOR,
+                type.name(),
+                origin,
+                target == null ? NONE : target,
+                playerId == null ? NONE : playerId.toString(),
+                Integer.toString(lives),
+                Long.toString(revivalAt),
+                Long.toString(version),
+                Long.toString(nextResetTime));
+    }
+
+    /**
+     * encode() で作られたテキストを復元する
+     *
+     * @throws IllegalArgumentException 形式が不正な場合
+     */
+    static LifeSyncMessage decode(String text) {
+        String[] lines = text.trim().split(LINE_SEPARATOR);
+        List<LifeSyncMessage> entries = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) {
+            LifeSyncMessage entry = decodeLine(lines[i], Collections.emptyList());
+            if (entry.getType() != Type.PLAYER) {
+                throw new IllegalArgumentException("Invalid snapshot entry: " + lines[i]);
+            }
+            entries.add(entry);
+        }
+
+        LifeSyncMessage message = decodeLine(lines[0], Collections.unmodifiableList(entries));
+        if (message.getType() != Type.SNAPSHOT && !entries.isEmpty()) {
+            throw new IllegalArgumentException("Unexpected entries in sync message: " + lines[0]);
+        }
+        return message;
+    }
+
+    private static LifeSyncMessage decodeLine(String line, List<LifeSyncMessage> entries) {
+        String[] parts = line.trim().split(SEPARATOR, -1);
+        if (parts.length != FIELD_COUNT) {
+            throw new IllegalArgumentException("Invalid sync message: " + line);
+        }
+        Type type = Type.valueOf(parts[0]);
+        String target = NONE.equals(parts[2]) ? null : parts[2];
+        UUID playerId = NONE.equals(parts[3]) ? null : UUID.fromString(parts[3]);
+        if (type == Type.PLAYER && playerId == null) {
+            throw new IllegalArgumentException("Player message without UUID: " + line);
+        }
+        return new LifeSyncMessage(type, parts[1], target, playerId,
+                Integer.parseInt(parts[4]),
+                Long.parseLong(parts[5]),
+                Long.parseLong(parts[6]),
+                Long.parseLong(parts[7]),
+                entries);
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.randomdeathpawn;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 複数サーバー間でライフ情報を共有するための同期処理
+ * - ライフ・復活予定時刻の読み取りは常にローカルの Map から行い、変更があったときだけバスに流す
+ * - プレイヤーごとにバージョン (送信時刻ベースの単調増加値) を持ち、古い変更は捨てる
+ * - ライフリセットはリセット後のバージョン下限を記録し、リセット前の変更が遅れて届いても無視する
+ * - ライフ・バージョン・次回リセット時刻の書き換えはすべてこのクラスのロック内で、受信した順に行う
+ */
+final class LifeSyncService {
+
+    // 他サーバーとの次回リセット時刻のずれがこれ未満なら、同じ回のリセットとして扱う
+    static final long RESET_MERGE_WINDOW_MILLIS = TimeUnit.HOURS.toMillis(1);
+    // 起動後、他サーバーからの状態 (SNAPSHOT_REQUEST の返信) を待つ時間
+    private static final long SNAPSHOT_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final RandomDeathpawn plugin;
+    private final LifeSyncBus bus;
+    private final String nodeId;
+    private final Map<UUID, Integer> remainingLives;
+    private final Map<UUID, Long> revivalTimestamps;
+    private final int defaultDeathLimit;
+
+    // プレイヤーごとの最新バージョン (前回リセット以降に変更があったプレイヤーのみ)
+    private final Map<UUID, Long> versions = new ConcurrentHashMap<>();
+    // これ以下のバージョンは前回リセットより前の変更
+    private long resetFloor;
+    private long clock;
+    private volatile long startedAt;
+
+    private LifeSyncService(RandomDeathpawn plugin, LifeSyncBus bus, String nodeId,
+            Map<UUID, Integer> remainingLives, Map<UUID, Long> revivalTimestamps, int defaultDeathLimit) {
+        this.plugin = plugin;
+        this.bus = bus;
+        this.nodeId = nodeId;
+        this.remainingLives = remainingLives;
+        this.revivalTimestamps = revivalTimestamps;
+        this.defaultDeathLimit = defaultDeathLimit;
+    }
+
+    /**
+     * config.yml の sync セクションから同期処理を作成する
+     *
+     * @throws IllegalArgumentException 設定が同期に使えない場合 (共有ディレクトリ未指定など)
+     */
+    static LifeSyncService create(RandomDeathpawn plugin, ConfigurationSection config,
+            Map<UUID, Integer> remainingLives, Map<UUID, Long> revivalTimestamps, int defaultDeathLimit) {
+        String nodeId = config.getString("nodeId", "");
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString().substring(0, 8);
+        }
+        // ファイル名・メッセージの区切り文字と衝突しないようにする
+        nodeId = nodeId.replaceAll("[^A-Za-z0-9_]", "_");
+
+        String channel = config.getString("channel", "randomdeathpawn");
+        String busType = config.getString("bus", "file");
+
+        if (!"file".equalsIgnoreCase(busType)) {
+            plugin.getLogger().warning("[RandomDeathpawn] 不明な同期バス " + busType + " のため file を使用します");
+        }
+        String directoryName = config.getString("directory", "");
+        if (directoryName == null || directoryName.isBlank()) {
+            // サーバーごとのフォルダにすると、どのサーバーとも同期できないまま動いてしまう
+            throw new IllegalArgumentException("sync.directory に全サーバー共通の共有ディレクトリを指定してください");
+        }
+        File directory = new File(directoryName);
+        LifeSyncBus bus = new FileLifeSyncBus(plugin, new File(directory, channel).toPath(), nodeId,
+                config.getLong("pollIntervalMillis", 500L),
+                TimeUnit.SECONDS.toMillis(config.getLong("retentionSeconds", 60L)));
+
+        return new LifeSyncService(plugin, bus, nodeId, remainingLives, revivalTimestamps, defaultDeathLimit);
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    void start() throws IOException {
+        startedAt = System.currentTimeMillis();
+        bus.start(this::onMessage);
+        // 起動中に他サーバーで起きた変更を受け取る
+        bus.publish(LifeSyncMessage.snapshotRequest(nodeId));
+    }
+
+    void close() {
+        bus.close();
+    }
+
+    // ==================================================
+    // livedata.yml へのバージョン情報の保存
+    // ==================================================
+    void load(YamlConfiguration yaml) {
+        synchronized (this) {
+            resetFloor = yaml.getLong("sync.resetFloor", 0L);
+            clock = Math.max(clock, resetFloor);
+        }
+        if (yaml.isConfigurationSection("sync.versions")) {
+            for (String uuidStr : yaml.getConfigurationSection("sync.versions").getKeys(false)) {
+                try {
+                    long version = yaml.getLong("sync.versions." + uuidStr, 0L);
+                    versions.put(UUID.fromString(uuidStr), version);
+                    synchronized (this) {
+                        clock = Math.max(clock, version);
+                    }
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("[RandomDeathpawn] Invalid UUID in livedata.yml: " + uuidStr);
+                }
+            }
+        }
+    }
+
+    void save(YamlConfiguration yaml) {
+        synchronized (this) {
+            yaml.set("sync.resetFloor", resetFloor);
+        }
+        yaml.set("sync.versions", null);
+        for (Map.Entry<UUID, Long> entry : versions.entrySet()) {
+            yaml.set("sync.versions." + entry.getKey().toString(), entry.getValue());
+        }
+    }
+
+    // ==================================================
+    // ローカルの変更を配信
+    // ==================================================
+
+    /**
+     * このサーバーでのライフ・復活予定時刻の変更を、受信処理と同じロック内で Map に反映して配信する
+     * (変更・バージョン付け・送信内容の作成の間に他サーバーの変更が割り込まないようにする)
+     *
+     * @return change の戻り値
+     */
+    <T> T applyLocalChange(UUID uuid, Supplier<T> change) {
+        T result;
+        LifeSyncMessage message;
+        synchronized (this) {
+            result = change.get();
+            long version = nextVersion();
+            versions.put(uuid, version);
+            message = playerMessage(uuid, version);
+        }
+        bus.publish(message);
+        return result;
+    }
+
+    /**
+     * 起動直後は他サーバーの状態 (SNAPSHOT) が届くのを待つ。それまでは次回リセット時刻を独自に決めたり、
+     * 取り戻しリセットを行ったりしない (停止中に他サーバーで済んだリセットを二重に行うのを防ぐ)
+     */
+    boolean isSnapshotSettled() {
+        return System.currentTimeMillis() - startedAt >= SNAPSHOT_GRACE_MILLIS;
+    }
+
+    /**
+     * 同期先に予定を持つサーバーがなかったとき、このサーバーで次回リセット時刻を決める
+     */
+    synchronized void startScheduleIfUnset(long nextResetTime) {
+        if (plugin.getNextResetTime() <= 0L) {
+            plugin.setNextResetTime(nextResetTime);
+            plugin.markDataDirty();
+        }
+    }
+
+    /**
+     * このサーバーでライフリセットを実行し、他サーバーに通知する
+     * 他サーバーのリセットを先に取り込んで、まだリセット時刻になっていなければ false
+     */
+    boolean resetLocally(long now, long nextResetTime) {
+        LifeSyncMessage message;
+        synchronized (this) {
+            if (plugin.getNextResetTime() > now) {
+                return false;
+            }
+            wipeUpTo(nextVersion());
+            plugin.setNextResetTime(nextResetTime);
+            message = LifeSyncMessage.reset(nodeId, nextResetTime, resetFloor);
+        }
+        bus.publish(message);
+        return true;
+    }
+
+    // 送信時刻を基準にしつつ、同じミリ秒内や時計の巻き戻りでも必ず増えるようにする
+    private long nextVersion() {
+        clock = Math.max(System.currentTimeMillis(), clock + 1);
+        return clock;
+    }
+
+    private LifeSyncMessage playerMessage(UUID uuid, long version) {
+        int lives = remainingLives.getOrDefault(uuid, defaultDeathLimit);
+        long revivalAt = revivalTimestamps.getOrDefault(uuid, 0L);
+        return LifeSyncMessage.player(nodeId, uuid, lives, revivalAt, version);
+    }
+
+    // ==================================================
+    // 他サーバーからの変更を反映
+    // ==================================================
+    private void onMessage(LifeSyncMessage message) {
+        if (nodeId.equals(message.getOrigin())) {
+            return;
+        }
+        if (message.getTarget() != null && !nodeId.equals(message.getTarget())) {
+            return;
+        }
+
+        switch (message.getType()) {
+            case PLAYER:
+                boolean changed;
+                synchronized (this) {
+                    changed = applyPlayer(message);
+                }
+                if (changed) {
+                    plugin.onRemotePlayerChanged(message.getPlayerId());
+                }
+                break;
+            case RESET:
+                boolean wiped;
+                synchronized (this) {
+                    wiped = mergeReset(message.getNextResetTime(), message.getVersion());
+                }
+                if (wiped) {
+                    plugin.onRemoteReset();
+                }
+                break;
+            case SNAPSHOT_REQUEST:
+                // 要求元だけに、リセット状態と前回リセット以降に変更のあったプレイヤーを1通にまとめて返す
+                LifeSyncMessage snapshot;
+                synchronized (this) {
+                    List<LifeSyncMessage> players = new ArrayList<>();
+                    for (Map.Entry<UUID, Long> entry : versions.entrySet()) {
+                        players.add(playerMessage(entry.getKey(), entry.getValue()));
+                    }
+                    snapshot = LifeSyncMessage.snapshot(nodeId, message.getOrigin(),
+                            plugin.getNextResetTime(), resetFloor, players);
+                }
+                bus.publish(snapshot);
+                break;
+            case SNAPSHOT:
+                applySnapshot(message);
+                break;
+        }
+    }
+
+    private void applySnapshot(LifeSyncMessage message) {
+        boolean wiped;
+        List<UUID> changedPlayers = new ArrayList<>();
+        synchronized (this) {
+            // リセット状態を先に反映してから、そのリセット以降の変更を重ねる
+            wiped = mergeReset(message.getNextResetTime(), message.getVersion());
+            for (LifeSyncMessage entry : message.getEntries()) {
+                if (applyPlayer(entry)) {
+                    changedPlayers.add(entry.getPlayerId());
+                }
+            }
+        }
+
+        if (wiped) {
+            plugin.onRemoteReset();
+        }
+        for (UUID uuid : changedPlayers) {
+            plugin.onRemotePlayerChanged(uuid);
+        }
+    }
+
+    // 新しい変更なら Map に反映して true。呼び出し側でロックを取っておくこと
+    private boolean applyPlayer(LifeSyncMessage message) {
+        UUID uuid = message.getPlayerId();
+        clock = Math.max(clock, message.getVersion());
+        if (message.getVersion() <= resetFloor) {
+            return false;
+        }
+        if (message.getVersion() <= versions.getOrDefault(uuid, 0L)) {
+            return false;
+        }
+        versions.put(uuid, message.getVersion());
+
+        remainingLives.put(uuid, message.getLives());
+        if (message.getRevivalAt() > 0L) {
+            revivalTimestamps.put(uuid, message.getRevivalAt());
+        } else {
+            revivalTimestamps.remove(uuid);
+        }
+        return true;
+    }
+
+    /**
+     * 他サーバーのリセット状態を取り込む。このサーバーのライフを初期化したら true
+     * 呼び出し側でロックを取っておくこと。
+     * 次回リセット時刻を動かせるのは、このサーバーより新しいリセットを実行したサーバーだけ
+     * (リセットしていないサーバーの予定でネットワーク全体のリセットが先送りされないようにする)
+     */
+    private boolean mergeReset(long remoteNextResetTime, long remoteFloor) {
+        clock = Math.max(clock, remoteFloor);
+
+        if (remoteFloor <= resetFloor) {
+            // 同じ回か古いリセット。次回リセット時刻が未設定のときだけネットワークの予定を引き継ぐ
+            if (plugin.getNextResetTime() <= 0L && remoteNextResetTime > 0L) {
+                plugin.setNextResetTime(remoteNextResetTime);
+                plugin.markDataDirty();
+            }
+            return false;
+        }
+
+        if (resetFloor > 0L && remoteFloor - resetFloor < RESET_MERGE_WINDOW_MILLIS) {
+            // 同じ回のリセットをほぼ同時に両方で実行済み (このサーバーも1時間以内に初期化している)。
+            // 後からリセットした側の次回時刻に揃えるだけで、初期化はやり直さない
+            plugin.setNextResetTime(remoteNextResetTime);
+            plugin.markDataDirty();
+            return false;
+        }
+
+        // このサーバーがまだ実行していないリセット。送信元のリセット時点を下限にする
+        // (それより後にどこかで起きた変更は残す)
+        wipeUpTo(remoteFloor);
+        plugin.setNextResetTime(remoteNextResetTime);
+        return true;
+    }
+
+    // floor 以前の変更をすべて初期値に戻す。呼び出し側でロックを取っておくこと
+    private void wipeUpTo(long floor) {
+        for (UUID uuid : remainingLives.keySet()) {
+            if (versions.getOrDefault(uuid, 0L) <= floor) {
+                remainingLives.put(uuid, defaultDeathLimit);
+            }
+        }
+        revivalTimestamps.keySet().removeIf(uuid -> versions.getOrDefault(uuid, 0L) <= floor);
+        versions.values().removeIf(version -> version <= floor);
+        resetFloor = floor;
+    }
+}
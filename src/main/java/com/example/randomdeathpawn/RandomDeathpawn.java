@@ -31,6 +31,8 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * RandomDeathpawn Ver1.3
@@ -51,6 +53,7 @@ import java.util.concurrent.TimeUnit;
  * ・再起動後に観戦モードが解除されるのを防ぐため、ログイン時にチェック
  * ・ライフ0のプレイヤーがあと何分で復活可能かを表示する /checkrevive コマンドを追加
  * ・/addlives コマンドで他人のライフを操作できる機能を追加
+ * ・config.yml の sync.enabled で複数サーバー間のライフ共有に対応 (変更とリセットのみ LifeSyncBus で配信)
  */
 public class RandomDeathpawn extends JavaPlugin implements Listener {
     // コンフィグから読み取るデフォルトライフ・復活時間・スポーン範囲
@@ -67,7 +70,7 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
     private final Map<UUID, Long> revivalTimestamps = new ConcurrentHashMap<>();
 
     // 次回リセット時刻 (ミリ秒)
-    private long nextResetTime;
+    private volatile long nextResetTime;
     // 既にアナウンスした「残り時間」を記録して重複通知を防ぐ
     private final Set<Long> announcedTimes = ConcurrentHashMap.newKeySet();
 
@@ -82,6 +85,11 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
     private File liveDataFile;
     private YamlConfiguration liveDataYaml;
 
+    // サーバー間同期 (sync.enabled が false なら null)
+    private LifeSyncService lifeSync;
+    // 他サーバーからの変更で livedata.yml の保存が必要か
+    private final AtomicBoolean dataDirty = new AtomicBoolean();
+
     private enum TeleportReason {
         FIRST_JOIN,
         RESPAWN,
@@ -100,11 +108,36 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
         this.globalScheduler = getServer().getGlobalRegionScheduler();
         this.asyncScheduler = getServer().getAsyncScheduler();
 
+        if (config.getBoolean("sync.enabled", false)) {
+            try {
+                lifeSync = LifeSyncService.create(this, config.getConfigurationSection("sync"),
+                        remainingLives, revivalTimestamps, defaultDeathLimit);
+            } catch (IllegalArgumentException e) {
+                getLogger().severe("サーバー間ライフ同期の設定が不正なため、このサーバー単独で動作します: " + e.getMessage());
+            }
+        }
+
         loadData();
 
         getServer().getPluginManager().registerEvents(this, this);
 
+        if (lifeSync != null) {
+            try {
+                lifeSync.start();
+                getLogger().info("サーバー間ライフ同期を開始しました (ノードID: " + lifeSync.getNodeId() + ")");
+            } catch (IOException e) {
+                getLogger().severe("サーバー間ライフ同期を開始できませんでした。このサーバー単独で動作します: " + e.getMessage());
+                lifeSync = null;
+                // 同期モード用に残しておいた未設定・過去の次回リセット時刻を、単独動作と同じ扱いにする
+                long now = System.currentTimeMillis();
+                if (nextResetTime <= now) {
+                    nextResetTime = now + TimeUnit.DAYS.toMillis(7);
+                }
+            }
+        }
+
         startRevivalCheckTask();
+        startDataSaveTask();
         scheduleWeeklyReset();
         startWeeklyResetAnnouncementTask();
 
@@ -113,6 +146,11 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
 
     @Override
     public void onDisable() {
+        // 先に受信を止めてから保存する (保存後に届いた他サーバーの変更が livedata.yml から漏れないように)
+        if (lifeSync != null) {
+            lifeSync.close();
+        }
+
         // ★追加★ livedata.yml にデータを保存
         saveData();
 
@@ -142,8 +180,10 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
         nextResetTime = liveDataYaml.getLong("nextResetTime", 0L);
 
         // 未設定 or 過去なら「今から1週間後」
+        // (同期モードでは未設定なら 0 のまま他サーバーの予定を引き継ぎ、過去の時刻も停止中に過ぎたリセットを
+        //  引き継ぐためそのまま残す。引き継げなかった場合は scheduleWeeklyReset が起動後しばらく待ってから決める)
         long now = System.currentTimeMillis();
-        if (nextResetTime <= now) {
+        if (lifeSync == null && nextResetTime <= now) {
             nextResetTime = now + TimeUnit.DAYS.toMillis(7);
         }
 
@@ -175,9 +215,14 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
                 }
             }
         }
+
+        if (lifeSync != null) {
+            lifeSync.load(liveDataYaml);
+        }
     }
 
-    private void saveData() {
+    private synchronized void saveData() {
+        dataDirty.set(false);
         if (liveDataYaml == null || liveDataFile == null) {
             return;
         }
@@ -193,6 +238,10 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
             liveDataYaml.set("revivalTimestamps." + entry.getKey().toString(), entry.getValue());
         }
 
+        if (lifeSync != null) {
+            lifeSync.save(liveDataYaml);
+        }
+
         try {
             liveDataYaml.save(liveDataFile);
         } catch (IOException e) {
@@ -200,6 +249,15 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
         }
     }
 
+    private void startDataSaveTask() {
+        // 他サーバーから大量の変更 (起動時の状態の返信など) が届いても、保存は数秒に1回にまとめる
+        globalScheduler.runAtFixedRate(this, (task) -> {
+            if (dataDirty.get()) {
+                saveData();
+            }
+        }, 20L * 5, 20L * 5);
+    }
+
     // ==================================================
     // イベントハンドラ ＆ 固有ロジック
     // ==================================================
@@ -212,7 +270,12 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
         if (!player.hasPlayedBefore()) {
             // 新規ユーザー処理
             processRandomTeleport(player, TeleportReason.FIRST_JOIN);
-            remainingLives.put(uuid, defaultDeathLimit);
+            if (lifeSync != null) {
+                // 他サーバーで遊んだことがあるプレイヤーは、このサーバーでは初参加でもライフを引き継ぐ
+                remainingLives.putIfAbsent(uuid, defaultDeathLimit);
+            } else {
+                remainingLives.put(uuid, defaultDeathLimit);
+            }
             saveData();
         }
 
@@ -238,12 +301,14 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
 
-        int lives = remainingLives.getOrDefault(uuid, defaultDeathLimit);
-        lives--;
-        if (lives < 0) {
-            lives = 0;
-        }
-        remainingLives.put(uuid, lives);
+        int lives = computeLifeState(uuid, () -> {
+            int updated = remainingLives.getOrDefault(uuid, defaultDeathLimit) - 1;
+            if (updated < 0) {
+                updated = 0;
+            }
+            remainingLives.put(uuid, updated);
+            return updated;
+        });
         saveData();
 
         Component defaultDeathMessage = event.deathMessage();
@@ -263,7 +328,7 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
                 player.sendMessage("§cライフが0になりました。一定時間観戦モードになります。");
                 player.sendMessage("§c復活までの時間は「/checkrevive」でいつでも確認できます！");
                 long revivalDelayMillis = TimeUnit.HOURS.toMillis(defaultRevivalTimeHours);
-                revivalTimestamps.put(uuid, System.currentTimeMillis() + revivalDelayMillis);
+                updateLifeState(uuid, () -> revivalTimestamps.put(uuid, System.currentTimeMillis() + revivalDelayMillis));
                 saveData();
             }, null);            
         }
@@ -275,31 +340,127 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
         
     private void scheduleWeeklyReset() {
         long oneWeekMillis = TimeUnit.DAYS.toMillis(7);
-        long oneWeekTicks = oneWeekMillis / 50;
-
-        long now = System.currentTimeMillis();
-        long delayMillis = Math.max(0, nextResetTime - now);
-        long delayTicks = delayMillis / 50;
 
+        // 次回リセット時刻は他サーバーからの通知でも変わるため、1週間後に固定せず1分ごとに確認する
         globalScheduler.runAtFixedRate(this, (task) -> {
-            remainingLives.keySet().forEach(uuid -> remainingLives.put(uuid, defaultDeathLimit));
-            revivalTimestamps.clear();
+            long now = System.currentTimeMillis();
+            if (now < nextResetTime)
+                return;
+            // 未設定の予定や停止中に逃したリセットは、まず他サーバーから状態を受け取って引き継ぐ
+            if (lifeSync != null && !lifeSync.isSnapshotSettled())
+                return;
+            if (nextResetTime <= 0L) {
+                // 同期先に予定を持つサーバーがなかった。このサーバーから1週間周期を始める
+                lifeSync.startScheduleIfUnset(now + oneWeekMillis);
+                return;
+            }
 
-            getLogger().info("一週間が経過したため、全員のライフを初期化しました。");
-            this.broadcastMessage("§a一週間が経過したため、全員のライフを初期化しました。");
+            // 停止中に何回分か過ぎていても、元の周期に揃えて次回を決める
+            long next = nextResetTime;
+            while (next <= now) {
+                next += oneWeekMillis;
+            }
 
-            // オンラインの観戦者を解放
-            for (Player p : Bukkit.getOnlinePlayers()) {
-                if (p.getGameMode() == GameMode.SPECTATOR) {
-                    releasePlayer(p);
-                }
+            if (lifeSync != null) {
+                // ライフの初期化とリセット下限の更新を、受信処理と同じロック内でまとめて行う
+                // (直前に他サーバーのリセットを取り込んでいたら何もしない)
+                if (!lifeSync.resetLocally(now, next))
+                    return;
+            } else {
+                remainingLives.keySet().forEach(uuid -> remainingLives.put(uuid, defaultDeathLimit));
+                revivalTimestamps.clear();
+                nextResetTime = next;
             }
+            announceLifeReset();
+        }, 20L * 60, 20L * 60);
+    }
 
-            long resetNow = System.currentTimeMillis();
-            nextResetTime = resetNow + oneWeekMillis;
-            announcedTimes.clear();
-            saveData();
-        }, delayTicks, oneWeekTicks);
+    /**
+     * ライフの初期化後に、アナウンスと観戦者の解放を行う
+     */
+    private void announceLifeReset() {
+        getLogger().info("一週間が経過したため、全員のライフを初期化しました。");
+        this.broadcastMessage("§a一週間が経過したため、全員のライフを初期化しました。");
+
+        // オンラインの観戦者を解放
+        // (他サーバーのリセットを取り込んだ場合、リセット後に死亡してライフ0のままのプレイヤーは解放しない)
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            if (p.getGameMode() == GameMode.SPECTATOR
+                    && remainingLives.getOrDefault(p.getUniqueId(), defaultDeathLimit) > 0) {
+                releasePlayer(p);
+            }
+        }
+
+        announcedTimes.clear();
+        saveData();
+    }
+
+    // ==================================================
+    // サーバー間同期 (LifeSyncService から呼ばれる)
+    // ==================================================
+
+    /**
+     * プレイヤーのライフ・復活予定時刻を変更する
+     * 同期モードでは受信処理と同じロック内で変更してバージョンを付け、他サーバーへ配信する
+     */
+    private void updateLifeState(UUID uuid, Runnable change) {
+        computeLifeState(uuid, () -> {
+            change.run();
+            return null;
+        });
+    }
+
+    /**
+     * updateLifeState と同じだが、変更後の値 (新しいライフ数など) を返す
+     */
+    private <T> T computeLifeState(UUID uuid, Supplier<T> change) {
+        if (lifeSync != null) {
+            return lifeSync.applyLocalChange(uuid, change);
+        }
+        return change.get();
+    }
+
+    long getNextResetTime() {
+        return nextResetTime;
+    }
+
+    void setNextResetTime(long nextResetTime) {
+        this.nextResetTime = nextResetTime;
+    }
+
+    /**
+     * livedata.yml への保存が必要になったことを記録する (まとめて startDataSaveTask で保存)
+     */
+    void markDataDirty() {
+        dataDirty.set(true);
+    }
+
+    /**
+     * 他サーバーのライフリセットを反映した (Map と次回リセット時刻は反映済み)
+     */
+    void onRemoteReset() {
+        globalScheduler.execute(this, this::announceLifeReset);
+    }
+
+    /**
+     * 他サーバーでプレイヤーのライフ・復活予定時刻が変更された (Map には反映済み)
+     */
+    void onRemotePlayerChanged(UUID uuid) {
+        markDataDirty();
+
+        // 通常はプロキシ経由で別サーバーにいるが、管理者が他サーバーから /addlives した場合などに備える
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null)
+            return;
+
+        player.getScheduler().run(this, (task) -> {
+            int lives = remainingLives.getOrDefault(uuid, defaultDeathLimit);
+            if (lives > 0 && player.getGameMode() == GameMode.SPECTATOR) {
+                releasePlayer(player);
+            } else {
+                checkAndSetSpectatorIfNeeded(player);
+            }
+        }, null);
     }
 
     private void startWeeklyResetAnnouncementTask() {
@@ -342,12 +503,21 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
             revivalTimestamps.forEach((uuid, revivalTime) -> {
                 if (revivalTime != null && revivalTime <= now) {
                     Player p = Bukkit.getPlayer(uuid);
-                    if (p != null && p.getGameMode() == GameMode.SPECTATOR) {
-                        remainingLives.put(uuid, defaultDeathLimit);
-                        releasePlayer(p);
+                    if (p == null && lifeSync != null) {
+                        // 同期モードでは他サーバーにいるプレイヤーの復活は、そのサーバーに任せる
+                        return;
                     }
+                    boolean release = p != null && p.getGameMode() == GameMode.SPECTATOR;
                     // 処理が完了したらマップから削除
-                    revivalTimestamps.remove(uuid);
+                    updateLifeState(uuid, () -> {
+                        if (release) {
+                            remainingLives.put(uuid, defaultDeathLimit);
+                        }
+                        revivalTimestamps.remove(uuid);
+                    });
+                    if (release) {
+                        releasePlayer(p);
+                    }
                 }
             });
         }, 20L, 20L);
@@ -487,11 +657,16 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
 
         if (command.getName().equalsIgnoreCase("addlives")) {
             if (args.length == 0) {
-                remainingLives.put(uuid, defaultDeathLimit);
+                boolean release = player.getGameMode() == GameMode.SPECTATOR;
+                updateLifeState(uuid, () -> {
+                    remainingLives.put(uuid, defaultDeathLimit);
+                    if (release) {
+                        revivalTimestamps.remove(uuid);
+                    }
+                });
                 player.sendMessage("§aあなたのライフを初期値 (" + defaultDeathLimit + ") にリセットしました。");
-                if (player.getGameMode() == GameMode.SPECTATOR) {
+                if (release) {
                     releasePlayer(player);
-                    revivalTimestamps.remove(uuid);
                 }
                 saveData();
                 return true;
@@ -501,14 +676,19 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
                 String arg = args[0];
                 try {
                     int add = Integer.parseInt(arg);
-                    int current = remainingLives.getOrDefault(uuid, defaultDeathLimit);
-                    int newLives = current + add;
-                    remainingLives.put(uuid, newLives);
+                    boolean spectator = player.getGameMode() == GameMode.SPECTATOR;
+                    int newLives = computeLifeState(uuid, () -> {
+                        int updated = remainingLives.getOrDefault(uuid, defaultDeathLimit) + add;
+                        remainingLives.put(uuid, updated);
+                        if (spectator && updated > 0) {
+                            revivalTimestamps.remove(uuid);
+                        }
+                        return updated;
+                    });
                     player.sendMessage("§aあなたのライフを " + newLives + " に設定しました。");
 
-                    if (player.getGameMode() == GameMode.SPECTATOR && newLives > 0) {
+                    if (spectator && newLives > 0) {
                         releasePlayer(player);
-                        revivalTimestamps.remove(uuid);
                     }
                     saveData();
                     return true;
@@ -519,13 +699,18 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
                         return true;
                     }
                     UUID targetUuid = target.getUniqueId();
-                    remainingLives.put(targetUuid, defaultDeathLimit);
+                    Player onlineTarget = target.getPlayer();
+                    boolean release = onlineTarget != null && onlineTarget.getGameMode() == GameMode.SPECTATOR;
+                    updateLifeState(targetUuid, () -> {
+                        remainingLives.put(targetUuid, defaultDeathLimit);
+                        if (release) {
+                            revivalTimestamps.remove(targetUuid);
+                        }
+                    });
                     player.sendMessage("§a" + target.getName() + " のライフを初期値 (" + defaultDeathLimit + ") にリセットしました。");
 
-                    Player onlineTarget = target.getPlayer();
-                    if (onlineTarget != null && onlineTarget.getGameMode() == GameMode.SPECTATOR) {
+                    if (release) {
                         releasePlayer(onlineTarget);
-                        revivalTimestamps.remove(targetUuid);
                     }
                     saveData();
                     return true;
@@ -545,16 +730,21 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
 
                 try {
                     int add = Integer.parseInt(amountStr);
-                    int current = remainingLives.getOrDefault(targetUuid, defaultDeathLimit);
-                    int newLives = current + add;
-                    remainingLives.put(targetUuid, newLives);
+                    Player onlineTarget = target.getPlayer();
+                    boolean spectator = onlineTarget != null && onlineTarget.getGameMode() == GameMode.SPECTATOR;
+                    int newLives = computeLifeState(targetUuid, () -> {
+                        int updated = remainingLives.getOrDefault(targetUuid, defaultDeathLimit) + add;
+                        remainingLives.put(targetUuid, updated);
+                        if (spectator && updated > 0) {
+                            revivalTimestamps.remove(targetUuid);
+                        }
+                        return updated;
+                    });
 
                     player.sendMessage("§a" + target.getName() + " のライフを " + newLives + " に設定しました。");
 
-                    Player onlineTarget = target.getPlayer();
-                    if (onlineTarget != null && onlineTarget.getGameMode() == GameMode.SPECTATOR && newLives > 0) {
+                    if (spectator && newLives > 0) {
                         releasePlayer(onlineTarget);
-                        revivalTimestamps.remove(targetUuid);
                     }
                     saveData();
                 } catch (NumberFormatException e) {
@@ -582,8 +772,10 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
             if (revivalTime <= now) {
                 player.sendMessage("§aあなたはすでに復活可能な時間を過ぎています。復帰処理を行います。");
 
-                remainingLives.put(uuid, defaultDeathLimit);
-                revivalTimestamps.remove(uuid);
+                updateLifeState(uuid, () -> {
+                    remainingLives.put(uuid, defaultDeathLimit);
+                    revivalTimestamps.remove(uuid);
+                });
                 releasePlayer(player);
                 saveData();
                 return true;
@@ -626,8 +818,12 @@ public class RandomDeathpawn extends JavaPlugin implements Listener {
         if (lives <= 0) {
             // 復活可能な時間を過ぎていればリリース
             if (revivalTime != 0L && now >= revivalTime) {
+                // オフライン中に復活時間を過ぎた場合も、復活チェックタスクと同じくライフを初期値に戻す
+                updateLifeState(uuid, () -> {
+                    remainingLives.put(uuid, defaultDeathLimit);
+                    revivalTimestamps.remove(uuid); // 復活タイムスタンプの削除
+                });
                 releasePlayer(player);
-                revivalTimestamps.remove(uuid); // 復活タイムスタンプの削除
             } else {
                 // まだ復活時間に達していないなら改めて観戦モードへ
                 if (player.getGameMode() != GameMode.SPECTATOR) {